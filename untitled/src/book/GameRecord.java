@@ -0,0 +1,91 @@
+package book;
+
+import core.BoardGlobal;
+import core.exceptions.InvalidBoardStateException;
+import core.io.PositionReader;
+import core.utils.Action;
+import core.utils.Coords;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A stored game, made of its initial position and the actions played from it.
+ * <p>
+ * A record file holds the initial position in the format of {@code PositionReader},
+ * followed by a {@code ---} line, then one action per line as
+ * {@code fromX fromY toX toY}.
+ */
+
+public final class GameRecord {
+    /** The lines describing the initial position of the game */
+    private final @NotNull List<String> initialPosition;
+
+    /** The actions played during the game, in order */
+    public final @NotNull List<Action> actions;
+
+    private GameRecord(@NotNull List<String> initialPosition, @NotNull List<Action> actions) {
+        this.initialPosition = initialPosition;
+        this.actions = Collections.unmodifiableList(actions);
+    }
+
+    /**
+     * @return a new board in the initial position of the game,
+     * without any game event observer
+     */
+    public @NotNull BoardGlobal initialBoard() {
+        return PositionReader.parse(initialPosition);
+    }
+
+    /**
+     * Reads a game record from a file.
+     * @param file the path of the file to read
+     * @return the game described by the file
+     * @throws IOException if the file cannot be read
+     * @throws InvalidBoardStateException if the content of the file is malformed
+     */
+    public static @NotNull GameRecord read(@NotNull Path file)
+            throws IOException, InvalidBoardStateException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        int separator = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).trim().equals("---")) {
+                separator = i;
+                break;
+            }
+        }
+        if (separator < 0)
+            throw new InvalidBoardStateException(
+                    String.format("Game record %s has no '---' separator", file));
+
+        List<Action> actions = new ArrayList<>();
+        for (String line: lines.subList(separator + 1, lines.size())) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            String[] tokens = trimmed.split("\\s+");
+            try {
+                if (tokens.length != 4) throw new NumberFormatException();
+                actions.add(new Action(
+                        new Coords(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1])),
+                        new Coords(Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]))));
+            } catch (NumberFormatException e) {
+                throw new InvalidBoardStateException(
+                        String.format("Invalid action in game record %s: %s", file, trimmed));
+            }
+        }
+
+        // Parsing once to report a malformed position early
+        List<String> initialPosition = new ArrayList<>(lines.subList(0, separator));
+        PositionReader.parse(initialPosition);
+
+        return new GameRecord(initialPosition, actions);
+    }
+}
@@ -0,0 +1,228 @@
+package book;
+
+import core.IBoardState;
+import core.utils.Action;
+import core.utils.Coords;
+import core.utils.PlayerId;
+import core.utils.PlayerPiece;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A read-only opening book, queried before searching the first moves of a game.
+ * <p>
+ * The book file is memory-mapped rather than loaded on the heap, so that opening it
+ * is immediate whatever its size. It holds a header ({@code MAGIC}, then the number
+ * of entries), followed by fixed-size entries sorted by position hash, then by action:
+ * the position hash ({@code long}), the encoded action ({@code int})
+ * and the number of times it was played ({@code int}).
+ * <p>
+ * See {@code OpeningBookBuilder} to create a book from game records.
+ */
+
+public final class OpeningBook {
+
+    /** The first bytes of every book file */
+    static final int MAGIC = 0x53424F4B;
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    static final int ENTRY_SIZE = Long.BYTES + 2 * Integer.BYTES;
+
+    /** The largest number of entries that fits in a single memory mapping */
+    static final int MAX_ENTRIES = (Integer.MAX_VALUE - HEADER_SIZE) / ENTRY_SIZE;
+
+    /** The content of the book file */
+    private final @NotNull ByteBuffer entries;
+
+    /** The number of entries in the book */
+    private final int size;
+
+    private OpeningBook(@NotNull ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * Opens a book file by mapping it in memory.
+     * @param file the path of the book file
+     * @return the book stored in the file
+     * @throws IOException if the file cannot be read, is not a book file,
+     * or is too large to be mapped in memory at once
+     */
+    public static @NotNull OpeningBook open(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > HEADER_SIZE + (long) MAX_ENTRIES * ENTRY_SIZE)
+                throw new IOException(String.format(
+                        "Opening book file %s is too large to be mapped in memory", file));
+
+            // The mapping remains valid once the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+                throw new IOException(String.format("%s is not an opening book file", file));
+
+            int size = buffer.getInt(Integer.BYTES);
+            if (buffer.capacity() != HEADER_SIZE + (long) size * ENTRY_SIZE)
+                throw new IOException(String.format("Opening book file %s is truncated", file));
+            return new OpeningBook(buffer, size);
+        }
+    }
+
+    /** @return the number of (position, action) entries in the book */
+    public int size() { return size; }
+
+    /**
+     * Returns the actions stored in the book for a position.
+     * @param state the position to look up, from a global or from the player's point of view
+     * @return the actions played from this position, with the number of times
+     * each was played. Empty if the position is not in the book.
+     * Actions that cannot be played in {@code state} are left out: off the board,
+     * not moving a piece of the player to move, or moving onto a lake or an ally
+     */
+    public @NotNull Map<Action, Integer> lookup(@NotNull IBoardState state) {
+        long hash = hash(state);
+        int[][] board = state.getBoard();
+        Map<Action, Integer> result = new LinkedHashMap<>();
+        for (int i = firstIndexOf(hash); i < size && hashAt(i) == hash; i++) {
+            int offset = HEADER_SIZE + i * ENTRY_SIZE;
+            Action action = decodeAction(entries.getInt(offset + Long.BYTES));
+            // Entries are only matched by hash: a collision or a corrupted
+            // book may yield actions that cannot be played here
+            if (!isPlausible(state, board, action)) continue;
+            result.put(action, entries.getInt(offset + Long.BYTES + Integer.BYTES));
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether an action stored in the book can be played in a position,
+     * using only what the player to move can see: the action must move one of
+     * this player's pieces in a straight line, to a square of the board that
+     * is neither a lake nor occupied by another of this player's pieces.
+     * <p>
+     * Unlike {@code IBoardState.isLegal}, the squares crossed and the range of
+     * the piece are not checked, so that this also works on a player's point of view.
+     * @param state the position to look up
+     * @param board the content of {@code state}, as returned by {@code getBoard}
+     * @param action the action to check
+     * @return whether the action can be played in the position
+     */
+    private static boolean isPlausible(
+            @NotNull IBoardState state, int[][] board, @NotNull Action action) {
+        if (!state.isValid(action.from) || !state.isValid(action.to)) return false;
+        if (action.from.equals(action.to)
+                || (action.from.x != action.to.x && action.from.y != action.to.y))
+            return false;
+
+        // Restricted pieces appear as {@code ENEMY_PIECE}, so that
+        // {@code getPiece} is only called on accessible pieces
+        int fromSquareId = board[action.from.y][action.from.x];
+        if (fromSquareId < 0
+                || state.getPiece(fromSquareId).ownerId != state.nowPlaying())
+            return false;
+
+        int toSquareId = board[action.to.y][action.to.x];
+        if (toSquareId == IBoardState.LAKE_SQUARE) return false;
+        return toSquareId < 0
+                || state.getPiece(toSquareId).ownerId != state.nowPlaying();
+    }
+
+    /**
+     * Picks an action from the book for a position, each stored action being
+     * chosen with a probability proportional to the number of times it was played.
+     * @param state the position to look up, from a global or from the player's point of view
+     * @param random the source of randomness of the choice
+     * @return the chosen action, or {@code null} if the position is not in the book
+     * or none of its stored actions can be played in {@code state}
+     */
+    public @Nullable Action choose(@NotNull IBoardState state, @NotNull Random random) {
+        Map<Action, Integer> actions = lookup(state);
+        long total = 0;
+        for (int count: actions.values()) total += count;
+        if (total == 0) return null;
+
+        long pick = (long) (random.nextDouble() * total);
+        for (Map.Entry<Action, Integer> entry: actions.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) return entry.getKey();
+        }
+        // Unreachable, as {@code pick < total}
+        return null;
+    }
+
+    /**
+     * @return the index of the first entry whose hash is at least {@code hash},
+     * or {@code size} if there is none
+     */
+    private int firstIndexOf(long hash) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (hashAt(middle) < hash) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    private long hashAt(int index) {
+        return entries.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    /**
+     * Computes the hash of a position from the point of view of the player to move:
+     * the owner and value of this player's pieces are hashed, whereas all the opponent's
+     * pieces share a single code, their values being unknown to this player.
+     * Piece id's are not hashed either, as they differ between games.
+     * @param state the position to hash, from a global or from the player's point of view
+     * @return the 64-bit hash of the position
+     */
+    public static long hash(@NotNull IBoardState state) {
+        PlayerId nowPlaying = state.nowPlaying();
+
+        // FNV-1a over one byte per square
+        long hash = 0xcbf29ce484222325L;
+        for (int[] row: state.getBoard()) {
+            for (int squareId: row) {
+                int code;
+                if (squareId == IBoardState.EMPTY_SQUARE) code = 0;
+                else if (squareId == IBoardState.LAKE_SQUARE) code = 1;
+                else if (squareId == IBoardState.ENEMY_PIECE) code = 2;
+                else {
+                    PlayerPiece piece = state.getPiece(squareId);
+                    code = (piece.ownerId == nowPlaying) ? 3 + piece.value.ordinal() : 2;
+                }
+                hash = (hash ^ code) * 0x100000001b3L;
+            }
+            // Separates the rows, so that boards of different shapes differ
+            hash = (hash ^ 0xFF) * 0x100000001b3L;
+        }
+        return (hash ^ nowPlaying.ordinal()) * 0x100000001b3L;
+    }
+
+    /**
+     * @param action an action whose coordinates all lie within 0 and 255
+     * @return the action packed in an {@code int}, one byte per coordinate
+     */
+    static int encodeAction(@NotNull Action action) {
+        return (action.from.x & 0xFF) << 24
+                | (action.from.y & 0xFF) << 16
+                | (action.to.x & 0xFF) << 8
+                | (action.to.y & 0xFF);
+    }
+
+    /** @return the action packed by {@code encodeAction} */
+    static @NotNull Action decodeAction(int code) {
+        return new Action(
+                new Coords((code >>> 24) & 0xFF, (code >>> 16) & 0xFF),
+                new Coords((code >>> 8) & 0xFF, code & 0xFF));
+    }
+}
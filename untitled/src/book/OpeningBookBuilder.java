@@ -0,0 +1,162 @@
+package book;
+
+import core.BoardGlobal;
+import core.IBoardState;
+import core.exceptions.InvalidBoardStateException;
+import core.utils.Action;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A tool building an opening book from stored game records.
+ * <p>
+ * The records are replayed in parallel, and the number of times each action
+ * was played from each position is aggregated over all games, up to a maximum
+ * number of plies. The statistics are then written as a sorted book file,
+ * to be opened with {@code OpeningBook}.
+ * <p>
+ * Usage: {@code OpeningBookBuilder <book-file> <max-plies> <record-file-or-directory>...}.
+ * See {@code GameRecord} for the format of the record files.
+ */
+
+public final class OpeningBookBuilder {
+
+    /** The number of plies of each game added to the book */
+    private final int maxPlies;
+
+    /** For each position hash, the number of times each encoded action was played */
+    private final Map<Long, Map<Integer, LongAdder>> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new, empty book builder.
+     * @param maxPlies the number of plies of each game to add to the book
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Adds the first plies of a game to the book. This method can be called
+     * concurrently from several threads. The book is left unmodified
+     * if the record is rejected.
+     * @param record the game to add
+     * @throws InvalidBoardStateException if the record contains an illegal action
+     */
+    public void add(@NotNull GameRecord record) throws InvalidBoardStateException {
+        // The whole record is replayed before any statistic is added,
+        // as (position hash, encoded action) pairs
+        List<long[]> plays = new ArrayList<>();
+        BoardGlobal board = record.initialBoard();
+        int plies = Math.min(maxPlies, record.actions.size());
+        for (int i = 0; i < plies; i++) {
+            Action action = record.actions.get(i);
+            if (!board.isLegal(action))
+                throw new InvalidBoardStateException(
+                        String.format("Illegal action %s at ply %d of a game record", action, i));
+
+            // The hash only covers what the player to move knows of the board,
+            // so that the book matches any setup of the opponent
+            plays.add(new long[]{OpeningBook.hash(board), OpeningBook.encodeAction(action)});
+
+            // Battles are not supported by BoardGlobal yet:
+            // the rest of the game cannot be replayed
+            if (board.getSquare(action.to) != IBoardState.EMPTY_SQUARE) break;
+            board.applyAction(action, false);
+        }
+
+        for (long[] play: plays) {
+            statistics.computeIfAbsent(play[0], h -> new ConcurrentHashMap<>())
+                    .computeIfAbsent((int) play[1], a -> new LongAdder())
+                    .increment();
+        }
+    }
+
+    /**
+     * Writes the statistics gathered so far as a book file.
+     * @param file the path of the book file, replaced if it exists
+     * @throws IOException if the file cannot be written, or if the book
+     * has too many entries to be mapped in memory by {@code OpeningBook}
+     */
+    public void write(@NotNull Path file) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, LongAdder>> position: statistics.entrySet()) {
+            for (Map.Entry<Integer, LongAdder> action: position.getValue().entrySet()) {
+                entries.add(new long[]{
+                        position.getKey(),
+                        action.getKey(),
+                        Math.min(action.getValue().sum(), Integer.MAX_VALUE)});
+            }
+        }
+        if (entries.size() > OpeningBook.MAX_ENTRIES)
+            throw new IOException(String.format(
+                    "The book has %d entries, more than the %d that can be mapped in memory",
+                    entries.size(), OpeningBook.MAX_ENTRIES));
+
+        // The lookup relies on the entries being sorted by hash
+        entries.sort(Comparator.<long[]>comparingLong(e -> e[0]).thenComparingLong(e -> e[1]));
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(entries.size());
+            for (long[] entry: entries) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeInt((int) entry[2]);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: OpeningBookBuilder <book-file> <max-plies> <record-file-or-directory>...");
+            System.exit(1);
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[1]));
+
+        List<Path> recordFiles = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            Path path = Paths.get(args[i]);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    recordFiles.addAll(files.filter(Files::isRegularFile).collect(Collectors.toList()));
+                }
+            } else {
+                recordFiles.add(path);
+            }
+        }
+
+        long start = System.nanoTime();
+        LongAdder skipped = new LongAdder();
+        recordFiles.parallelStream().forEach(file -> {
+            // A single unreadable or inconsistent record must not abort the whole build
+            try { builder.add(GameRecord.read(file)); }
+            catch (IOException | InvalidBoardStateException e) {
+                System.err.printf("Skipping game record %s: %s%n", file, e.getMessage());
+                skipped.increment();
+            }
+        });
+        builder.write(Paths.get(args[0]));
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Games: %d%n", recordFiles.size() - skipped.sum());
+        System.out.printf("Skipped: %d%n", skipped.sum());
+        System.out.printf("Positions: %d%n", builder.statistics.size());
+        System.out.printf("Time: %.3f s%n", elapsed / 1e9);
+    }
+}
@@ -206,6 +206,9 @@ public final class BoardGlobal implements IBoardState {
             modified.setSquare(move.to, displacedPieceId);
         }
 
+        // The turn passes to the other player
+        modified.nowPlaying = nowPlaying.opponent();
+
         return modified;
     }
 
@@ -232,7 +235,7 @@ public final class BoardGlobal implements IBoardState {
 
     @Override
     public boolean isValid(@NotNull Coords c) {
-        return (c.y <= 0
+        return (c.y >= 0
                 && c.y < board.length
                 && c.x >= 0
                 && c.x < board[0].length);
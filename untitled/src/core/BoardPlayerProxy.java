@@ -35,7 +35,7 @@ public class BoardPlayerProxy implements IBoardState {
 
         // Replacing restricted pieces by a generic value
         for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board.length; j++) {
+            for (int j = 0; j < board[i].length; j++) {
                 int squareId = board[i][j];
                 if (squareId >= 0 && !accessibleIds.contains(squareId))
                     board[i][j] = ENEMY_PIECE;
@@ -0,0 +1,128 @@
+package core.io;
+
+import core.BoardGlobal;
+import core.IBoardState;
+import core.exceptions.InvalidBoardStateException;
+import core.utils.PieceValue;
+import core.utils.PlayerId;
+import core.utils.PlayerPiece;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small reader for plain-text Stratego positions, shared by the tools and the opening book.
+ * <p>
+ * The first non-blank line holds the id of the player whose turn it is
+ * ({@code RED} or {@code BLUE}). Each following non-blank line is a row of
+ * the board, with one whitespace-separated token per square:
+ * <ul>
+ *     <li>{@code .} for an empty square,</li>
+ *     <li>{@code ~} for a lake,</li>
+ *     <li>the owner's initial followed by a {@code PieceValue} name
+ *     for a piece, e.g. {@code RSCOUT} or {@code BP10}.</li>
+ * </ul>
+ * Lines starting with {@code #} are ignored.
+ */
+
+public final class PositionReader {
+
+    private PositionReader() {}
+
+    /**
+     * Reads a position from a file.
+     * @param file the path of the file to read
+     * @return the board described by the file, without any game event observer
+     * @throws IOException if the file cannot be read
+     * @throws InvalidBoardStateException if the content of the file is malformed
+     */
+    public static @NotNull BoardGlobal read(@NotNull Path file)
+            throws IOException, InvalidBoardStateException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) lines.add(line);
+            return parse(lines);
+        }
+    }
+
+    /**
+     * Parses a position from its lines of text.
+     * @param lines the lines describing the position. See the class description
+     * @return the board described by the lines, without any game event observer
+     * @throws InvalidBoardStateException if the lines are malformed
+     */
+    public static @NotNull BoardGlobal parse(@NotNull List<String> lines)
+            throws InvalidBoardStateException {
+        PlayerId nowPlaying = null;
+        List<int[]> rows = new ArrayList<>();
+        List<PlayerPiece> pieces = new ArrayList<>();
+
+        for (String line: lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            // The first meaningful line is the player to move
+            if (nowPlaying == null) {
+                nowPlaying = parsePlayer(trimmed);
+                continue;
+            }
+
+            String[] tokens = trimmed.split("\\s+");
+            if (!rows.isEmpty() && tokens.length != rows.get(0).length)
+                throw new InvalidBoardStateException(
+                        String.format("Row %d has %d squares instead of %d",
+                                rows.size(), tokens.length, rows.get(0).length));
+
+            int[] row = new int[tokens.length];
+            for (int x = 0; x < tokens.length; x++) {
+                String token = tokens[x];
+                if (token.equals(".")) {
+                    row[x] = IBoardState.EMPTY_SQUARE;
+                } else if (token.equals("~")) {
+                    row[x] = IBoardState.LAKE_SQUARE;
+                } else {
+                    row[x] = pieces.size();
+                    pieces.add(parsePiece(token));
+                }
+            }
+            rows.add(row);
+        }
+
+        if (nowPlaying == null || rows.isEmpty())
+            throw new InvalidBoardStateException("The position is missing its player or its board");
+
+        return new BoardGlobal(
+                rows.toArray(new int[0][]),
+                pieces.toArray(new PlayerPiece[0]),
+                null,
+                nowPlaying);
+    }
+
+    private static @NotNull PlayerId parsePlayer(@NotNull String token) {
+        try { return PlayerId.valueOf(token); }
+        catch (IllegalArgumentException e) {
+            throw new InvalidBoardStateException(String.format("Invalid player id: %s", token));
+        }
+    }
+
+    private static @NotNull PlayerPiece parsePiece(@NotNull String token) {
+        PlayerId owner;
+        switch (token.charAt(0)) {
+            case 'R': owner = PlayerId.RED; break;
+            case 'B': owner = PlayerId.BLUE; break;
+            default:
+                throw new InvalidBoardStateException(String.format("Invalid square: %s", token));
+        }
+        try { return new PlayerPiece(owner, PieceValue.valueOf(token.substring(1))); }
+        catch (IllegalArgumentException e) {
+            throw new InvalidBoardStateException(String.format("Invalid square: %s", token));
+        }
+    }
+}
@@ -23,4 +23,9 @@ public final class Action {
         Action other = (Action) o;
         return from.equals(other.from) && to.equals(other.to);
     }
+
+    @Override
+    public int hashCode() {
+        return 31 * from.hashCode() + to.hashCode();
+    }
 }
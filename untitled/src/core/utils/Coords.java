@@ -23,6 +23,11 @@ public final class Coords {
         return x == coords.x && y == coords.y;
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
+
     public @NotNull Coords add(@NotNull Coords coords) {
         return new Coords(x + coords.x, y + coords.y);
     }
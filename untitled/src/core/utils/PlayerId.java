@@ -1,9 +1,16 @@
 package core.utils;
 
+import org.jetbrains.annotations.NotNull;
+
 /**
  * A small enumeration of valid player id's.
  */
 
 public enum PlayerId {
-    RED, BLUE
+    RED, BLUE;
+
+    /** @return the id of the other player */
+    public @NotNull PlayerId opponent() {
+        return (this == RED) ? BLUE : RED;
+    }
 }
@@ -0,0 +1,259 @@
+package tools;
+
+import core.IBoardState;
+import core.exceptions.InvalidBoardStateException;
+import core.io.PositionReader;
+import core.utils.Action;
+import core.utils.Coords;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A perft ("performance test") tool, counting the leaf nodes of the game tree
+ * reachable to a given depth from a position.
+ * <p>
+ * Every board implementing {@code IBoardState} is explored through
+ * {@code getActions} and {@code applyAction} only, so that the counts of two
+ * implementations can be compared to catch move-generation bugs. The time taken
+ * by the count also makes it a repeatable throughput benchmark.
+ * <p>
+ * Usage: {@code Perft <position-file> <depth> [--divide] [--cache] [--threads N]}.
+ * See {@code PositionReader} for the format of the position file.
+ */
+
+public final class Perft {
+
+    /** The number of entries of the cache when enabled from the command line */
+    public static final int DEFAULT_CACHE_ENTRIES = 1 << 20;
+
+    /**
+     * Subtree counts already computed, indexed by position key, or {@code null}
+     * if caching is disabled. An entry is replaced by any other position
+     * falling on the same index, so that the memory used remains bounded.
+     */
+    private final AtomicReferenceArray<CacheEntry> cache;
+
+    /**
+     * Creates a new perft counter.
+     * @param cacheEntries the number of subtree counts to remember, to avoid exploring
+     *                     again positions reached by several move orders.
+     *                     {@code 0} disables the cache
+     * @throws IllegalArgumentException if {@code cacheEntries} is negative
+     */
+    public Perft(int cacheEntries) throws IllegalArgumentException {
+        if (cacheEntries < 0)
+            throw new IllegalArgumentException(String.format("Invalid cache size: %d", cacheEntries));
+        this.cache = (cacheEntries > 0) ? new AtomicReferenceArray<>(cacheEntries) : null;
+    }
+
+    /**
+     * Returns all the actions that the player whose turn it is can perform.
+     * @param state the position from which to move
+     * @return the legal actions of all the pieces of the player to move
+     */
+    public static @NotNull List<Action> legalActions(@NotNull IBoardState state)
+            throws InvalidBoardStateException {
+        int[][] board = state.getBoard();
+        List<Action> actions = new ArrayList<>();
+        for (int y = 0; y < board.length; y++) {
+            for (int x = 0; x < board[y].length; x++) {
+                actions.addAll(state.getActions(new Coords(x, y)));
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Counts the leaf nodes reachable from a position.
+     * @param state the root position. It is left unmodified
+     * @param depth the number of moves to play from the root position, at least 0
+     * @return the number of distinct move sequences of length {@code depth}
+     * @throws IllegalArgumentException if {@code depth} is negative
+     */
+    public long count(@NotNull IBoardState state, int depth)
+            throws IllegalArgumentException {
+        if (depth < 0)
+            throw new IllegalArgumentException(String.format("Invalid perft depth: %d", depth));
+        if (depth == 0) return 1;
+
+        List<Action> actions = legalActions(state);
+        // The leaves are the actions themselves: no need to apply them
+        if (depth == 1) return actions.size();
+
+        long key = 0;
+        int index = 0;
+        if (cache != null) {
+            key = positionKey(state, depth);
+            index = (int) Long.remainderUnsigned(key, cache.length());
+            CacheEntry known = cache.get(index);
+            if (known != null && known.key == key) return known.nodes;
+        }
+
+        long nodes = 0;
+        for (Action action: actions) {
+            nodes += count(state.applyAction(action, true), depth - 1);
+        }
+
+        if (cache != null) cache.set(index, new CacheEntry(key, nodes));
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes reachable after each action of the root position ("divide"),
+     * exploring the subtrees of the root actions in parallel.
+     * @param state the root position. It is left unmodified
+     * @param depth the number of moves to play from the root position, at least 1
+     * @param pool the pool in which the subtrees are explored
+     * @return the number of leaf nodes reached through each root action,
+     * in the order of {@code legalActions}
+     * @throws IllegalArgumentException if {@code depth} is smaller than 1
+     */
+    public @NotNull Map<Action, Long> divide(
+            @NotNull IBoardState state, int depth, @NotNull ForkJoinPool pool)
+            throws IllegalArgumentException {
+        if (depth < 1)
+            throw new IllegalArgumentException(String.format("Invalid divide depth: %d", depth));
+
+        List<Action> actions = legalActions(state);
+        Map<Action, Long> result = new LinkedHashMap<>();
+
+        // Each root action is itself a leaf: no need to apply them
+        if (depth == 1) {
+            for (Action action: actions) result.put(action, 1L);
+            return result;
+        }
+
+        List<SubtreeTask> tasks = new ArrayList<>();
+        for (Action action: actions) {
+            SubtreeTask task = new SubtreeTask(state.applyAction(action, true), depth - 1);
+            pool.execute(task);
+            tasks.add(task);
+        }
+
+        for (int i = 0; i < actions.size(); i++) {
+            result.put(actions.get(i), tasks.get(i).join());
+        }
+        return result;
+    }
+
+    /** The count of a subtree of the root position, run within a fork-join pool */
+    private final class SubtreeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final @NotNull IBoardState state;
+        private final int depth;
+
+        SubtreeTask(@NotNull IBoardState state, int depth) {
+            this.state = state;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() { return count(state, depth); }
+    }
+
+    /** A subtree count stored in the cache, with the key of its position */
+    private static final class CacheEntry {
+        private final long key;
+        private final long nodes;
+
+        CacheEntry(long key, long nodes) {
+            this.key = key;
+            this.nodes = nodes;
+        }
+    }
+
+    /**
+     * Computes the 64-bit key of a position at a given remaining depth,
+     * used both to index the cache and to check that an entry matches.
+     * @param state the position to identify
+     * @param depth the number of moves still to play from the position
+     * @return the key of the position at this depth
+     */
+    private static long positionKey(@NotNull IBoardState state, int depth) {
+        long key = 0;
+        for (int[] row: state.getBoard()) {
+            for (int squareId: row) key = mix(key + squareId);
+            // Separates the rows, so that boards of different shapes differ
+            key = mix(key + Integer.MAX_VALUE);
+        }
+        key = mix(key + state.nowPlaying().ordinal());
+        return mix(key + depth);
+    }
+
+    /**
+     * @return the bits of {@code value} thoroughly mixed,
+     * using the finalizer of the SplitMix64 generator
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /** @return the positive integer written in {@code arg}, or {@code 0} if there is none */
+    private static int parsePositive(@NotNull String arg) {
+        try { return Math.max(Integer.parseInt(arg), 0); }
+        catch (NumberFormatException e) { return 0; }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: Perft <position-file> <depth> [--divide] [--cache] [--threads N]");
+            System.exit(1);
+        }
+
+        IBoardState state = PositionReader.read(Paths.get(args[0]));
+        int depth = Integer.parseInt(args[1]);
+        boolean divide = false;
+        int cacheEntries = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--divide": divide = true; break;
+                case "--cache": cacheEntries = DEFAULT_CACHE_ENTRIES; break;
+                case "--threads":
+                    threads = (i + 1 < args.length) ? parsePositive(args[++i]) : 0;
+                    if (threads < 1) {
+                        System.err.println("--threads expects a positive number of threads");
+                        System.exit(1);
+                    }
+                    break;
+                default:
+                    System.err.printf("Unknown option: %s%n", args[i]);
+                    System.exit(1);
+            }
+        }
+
+        Perft perft = new Perft(cacheEntries);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        long nodes;
+        if (depth == 0) {
+            nodes = 1;
+        } else {
+            Map<Action, Long> counts = perft.divide(state, depth, pool);
+            nodes = 0;
+            for (Map.Entry<Action, Long> entry: counts.entrySet()) {
+                if (divide) System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+                nodes += entry.getValue();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        double seconds = elapsed / 1e9;
+        System.out.printf("Nodes: %d%n", nodes);
+        System.out.printf("Time: %.3f s%n", seconds);
+        System.out.printf("Nodes per second: %.0f%n", (seconds > 0) ? nodes / seconds : 0);
+    }
+}